@@ -31,13 +31,24 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
 
 /**
  * Functional Tests.
@@ -45,11 +56,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 public class YttPluginFunctionalTest {
 
   private static Path createFakeYttExecutable(final Path dir) throws IOException {
-    boolean isWindows = System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("win");
-    Path exe = dir.resolve(isWindows ? "fake-ytt.cmd" : "fake-ytt.sh");
+    Path exe = dir.resolve(isWindows() ? "fake-ytt.cmd" : "fake-ytt.sh");
     String script;
 
-    if (isWindows) {
+    if (isWindows()) {
       script = """
           @echo off\r
           REM Fake ytt: just print banner and the args\r
@@ -68,12 +78,32 @@ public class YttPluginFunctionalTest {
     }
 
     Files.writeString(exe, script, StandardCharsets.UTF_8);
-    if (!isWindows) {
+    if (!isWindows()) {
       exe.toFile().setExecutable(true);
     }
     return exe;
   }
 
+  private static boolean isWindows() {
+    return System.getProperty("os.name").toLowerCase(Locale.ROOT).contains("win");
+  }
+
+  /**
+   * Delete a directory tree, if it exists.
+   *
+   * @param dir {@link Path}
+   * @throws IOException IOException
+   */
+  private static void deleteDirectory(final Path dir) throws IOException {
+    if (Files.exists(dir)) {
+      try (Stream<Path> paths = Files.walk(dir)) {
+        for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+          Files.delete(path);
+        }
+      }
+    }
+  }
+
   /**
    * Minimal escaping so Windows paths and spaces survive inside the Groovy string literal.
    * 
@@ -84,6 +114,58 @@ public class YttPluginFunctionalTest {
     return p.toAbsolutePath().toString().replace("\\", "\\\\");
   }
 
+  /**
+   * Read the regular file entries of a .tar.gz.
+   *
+   * @param archive {@link Path}
+   * @return {@link Map} entry name to content
+   * @throws IOException IOException
+   */
+  private static Map<String, String> readTarGz(final Path archive) throws IOException {
+    final int block = 512;
+    final int nameLength = 100;
+    final int sizeOffset = 124;
+    final int sizeLength = 11;
+    final int prefixOffset = 345;
+    final int prefixLength = 155;
+    final int octal = 8;
+    Map<String, String> entries = new LinkedHashMap<>();
+    try (InputStream is = new GZIPInputStream(Files.newInputStream(archive))) {
+      while (true) {
+        byte[] header = is.readNBytes(block);
+        if (header.length < block || header[0] == 0) {
+          return entries;
+        }
+
+        String name = new String(header, 0, nameLength, StandardCharsets.UTF_8).trim();
+        String prefix =
+            new String(header, prefixOffset, prefixLength, StandardCharsets.UTF_8).trim();
+        long size = Long.parseLong(
+            new String(header, sizeOffset, sizeLength, StandardCharsets.US_ASCII), octal);
+        byte[] data = is.readNBytes((int) size);
+        is.readNBytes((int) ((block - size % block) % block));
+
+        String fullName = prefix.replace("\0", "").isEmpty() ? name : prefix + "/" + name;
+        entries.put(fullName.replace("\0", ""), new String(data, StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  /**
+   * Write an executable bash script into the test project, for tests that assume a Unix shell.
+   *
+   * @param name {@link String}
+   * @param body {@link String} script lines after the shebang
+   * @return {@link Path}
+   * @throws IOException IOException
+   */
+  private Path writeScript(final String name, final String body) throws IOException {
+    Path script = testProjectDir.resolve(name);
+    Files.writeString(script, "#!/usr/bin/env bash\n" + body, StandardCharsets.UTF_8);
+    script.toFile().setExecutable(true);
+    return script;
+  }
+
   /** Test Project Dir. */
   @TempDir
   Path testProjectDir;
@@ -98,6 +180,215 @@ public class YttPluginFunctionalTest {
 
   // --- helpers ---
 
+  @Test
+  void archivedSpecsRenderIntoReproducibleTarGz() throws IOException {
+    String updated = Files.readString(buildFile).replace("      into('api.yaml')\n",
+        "      into('api.yaml')\n      archive('bundle.tar.gz')\n" + "    }\n" + "    jwt {\n"
+            + "      from('src/main/resources/cloudformation/openapi-jwt.yaml')\n"
+            + "      archive('bundle.tar.gz')\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").build();
+
+    assertThat(result.task(":yttArchive_bundle").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    assertThat(result.task(":yttRender_api")).isNull();
+
+    Path archive = testProjectDir.resolve("build/distributions/api/bundle.tar.gz");
+    byte[] first = Files.readAllBytes(archive);
+    String tar;
+    try (InputStream is = new GZIPInputStream(Files.newInputStream(archive))) {
+      tar = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    assertThat(tar).contains("api.yaml").contains("jwt.yaml").contains("FAKE_YTT");
+
+    GradleRunner.create().withProjectDir(testProjectDir.toFile()).withPluginClasspath()
+        .withArguments("yttRenderAll", "--rerun-tasks").build();
+    assertThat(Files.readAllBytes(archive)).isEqualTo(first);
+  }
+
+  @Test
+  void archiveEntryLargerThanTheMemoryThresholdIsSpilledToDisk() throws IOException {
+    assumeFalse(isWindows());
+
+    final int size = 9 * 1024 * 1024;
+    Path bigYtt = writeScript("big-ytt.sh", "head -c " + size + " /dev/zero | tr '\\0' 'a'\n");
+
+    String updated = Files.readString(buildFile)
+        .replace(escapeForGroovy(fakeYtt), escapeForGroovy(bigYtt))
+        .replace("      into('api.yaml')\n",
+            "      into('api.yaml')\n      archive('big.tar.gz')\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").build();
+
+    assertThat(result.task(":yttArchive_big").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    assertThat(result.getOutput()).contains(size + " bytes into api.yaml");
+
+    Map<String, String> entries =
+        readTarGz(testProjectDir.resolve("build/distributions/api/big.tar.gz"));
+    assertThat(entries.get("api.yaml")).isEqualTo("a".repeat(size));
+    assertThat(testProjectDir.resolve("build/tmp/yttArchive_big/entry-0.out")).doesNotExist();
+  }
+
+  @Test
+  void archiveRejectsDuplicateAndEscapingEntryNames() throws IOException {
+    String base = Files.readString(buildFile);
+    String duplicate = base.replace("      into('api.yaml')\n",
+        "      into('api.yaml')\n      archive('bundle.tar.gz')\n" + "    }\n" + "    jwt {\n"
+            + "      from('src/main/resources/cloudformation/openapi-jwt.yaml')\n"
+            + "      into('./api.yaml')\n" + "      archive('bundle.tar.gz')\n");
+    Files.writeString(buildFile, duplicate, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result1 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").buildAndFail();
+    assertThat(result1.getOutput()).contains("renders into entry 'api.yaml', which "
+        + "'bundle.tar.gz' already contains");
+
+    String escaping = base.replace("      into('api.yaml')\n",
+        "      into('../api.yaml')\n      archive('bundle.tar.gz')\n");
+    Files.writeString(buildFile, escaping, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result2 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").buildAndFail();
+    assertThat(result2.getOutput()).contains("must render into a relative entry name");
+    assertThat(testProjectDir.resolve("build/distributions/api/bundle.tar.gz")).doesNotExist();
+  }
+
+  @Test
+  void archiveEntriesOnlySeeTheirOwnAllowListedEnvironment() throws IOException {
+    assumeFalse(isWindows());
+
+    Path envYtt = writeScript("env-ytt.sh",
+        "echo \"A_VAR=${A_VAR:-}\"\n" + "echo \"B_VAR=${B_VAR:-}\"\n");
+
+    String updated = Files.readString(buildFile)
+        .replace(escapeForGroovy(fakeYtt), escapeForGroovy(envYtt))
+        .replace("  outputDir = apiDistDir\n", "  outputDir = apiDistDir\n  hermetic = true\n")
+        .replace("      into('api.yaml')\n",
+            "      into('api.yaml')\n      archive('bundle.tar.gz')\n"
+                + "      passEnvironment('A_VAR')\n" + "    }\n" + "    jwt {\n"
+                + "      from('src/main/resources/cloudformation/openapi-jwt.yaml')\n"
+                + "      archive('bundle.tar.gz')\n" + "      passEnvironment('B_VAR')\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    Map<String, String> env = new HashMap<>(System.getenv());
+    env.put("A_VAR", "a");
+    env.put("B_VAR", "b");
+
+    GradleRunner.create().withProjectDir(testProjectDir.toFile()).withPluginClasspath()
+        .withEnvironment(env).withArguments("yttRenderAll").build();
+
+    Map<String, String> entries =
+        readTarGz(testProjectDir.resolve("build/distributions/api/bundle.tar.gz"));
+    assertThat(entries.get("api.yaml")).contains("A_VAR=a").contains("B_VAR=\n");
+    assertThat(entries.get("jwt.yaml")).contains("A_VAR=\n").contains("B_VAR=b");
+  }
+
+  @Test
+  void archiveEntriesRenderConcurrently() throws IOException {
+    assumeFalse(isWindows());
+
+    // each render waits until both have started, so a serial archive task times out
+    Path started = Files.createDirectories(testProjectDir.resolve("started"));
+    Path rendezvousYtt = writeScript("rendezvous-ytt.sh",
+        "touch \"" + started + "/$$\"\n" + "for i in $(seq 1 100); do\n"
+            + "  [ \"$(ls \"" + started + "\" | wc -l)\" -ge 2 ] && break\n"
+            + "  sleep 0.1\n" + "done\n" + "[ \"$(ls \"" + started + "\" | wc -l)\" -ge 2 ] "
+            + "|| exit 3\n" + "echo 'a: 1'\n");
+
+    String updated = Files.readString(buildFile)
+        .replace(escapeForGroovy(fakeYtt), escapeForGroovy(rendezvousYtt))
+        .replace("  outputDir = apiDistDir\n",
+            "  outputDir = apiDistDir\n  maxParallelRenders = 2\n")
+        .replace("      into('api.yaml')\n",
+            "      into('api.yaml')\n      archive('bundle.tar.gz')\n" + "    }\n" + "    jwt {\n"
+                + "      from('src/main/resources/cloudformation/openapi-jwt.yaml')\n"
+                + "      archive('bundle.tar.gz')\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").build();
+
+    assertThat(result.task(":yttArchive_bundle").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    Map<String, String> entries =
+        readTarGz(testProjectDir.resolve("build/distributions/api/bundle.tar.gz"));
+    assertThat(entries.keySet()).containsExactly("api.yaml", "jwt.yaml");
+  }
+
+  @Test
+  void dataValuesFilesArePassedToYttAndTrackedAsInputs() throws IOException {
+    Path values = testProjectDir.resolve("values.yaml");
+    Files.writeString(values, "env: dev\n", StandardCharsets.UTF_8);
+    Files.writeString(testProjectDir.resolve("env.properties"), "region=us-east-1\n",
+        StandardCharsets.UTF_8);
+
+    String updated = Files.readString(buildFile).replace("      into('api.yaml')\n",
+        "      into('api.yaml')\n      dataValuesFrom('values.yaml', 'env.properties')\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result1 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").build();
+
+    assertThat(result1.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    String content = Files.readString(testProjectDir.resolve("build/distributions/api/api.yaml"));
+    assertThat(content).contains("--data-values-file").contains("values.yaml")
+        .contains("data-values-1.json");
+    assertThat(testProjectDir.resolve("build/tmp/yttRender_api/data-values-1.json"))
+        .hasContent("{\"region\":\"us-east-1\"}");
+
+    Files.writeString(values, "env: prod\n", StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result2 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").build();
+
+    assertThat(result2.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+  }
+
+  @Test
+  void discoveredSpecsRenderFromTemplatesDir() throws IOException {
+    Path templates = testProjectDir.resolve("src/main/ytt");
+    Files.createDirectories(templates.resolve("web"));
+    Files.createDirectories(templates.resolve("worker"));
+    Files.createDirectories(templates.resolve("my.app"));
+    Files.createDirectories(templates.resolve("_ytt_lib"));
+    Files.createDirectories(templates.resolve(".cache"));
+    Files.createDirectories(testProjectDir.resolve("src/main/ytt-lib"));
+    Files.writeString(templates.resolve("web/web.yaml"), "web: v1\n", StandardCharsets.UTF_8);
+    Files.writeString(templates.resolve("worker/worker.yaml"), "worker: v1\n",
+        StandardCharsets.UTF_8);
+    Files.writeString(testProjectDir.resolve("src/main/ytt-lib/lib.star"), "x = 1\n",
+        StandardCharsets.UTF_8);
+
+    Files.writeString(buildFile, "ytt {\n" + "  templatesDir = file('src/main/ytt')\n"
+        + "  libraries('src/main/ytt-lib')\n" + "}\n"
+        + "tasks.withType(com.formkiq.gradle.YttRenderTask)"
+        + ".configureEach { println \"configured ${name}\" }\n" + "gradle.projectsEvaluated {\n"
+        + "  println \"ytt tasks: ${tasks.names.findAll { it.startsWith('yttRender_') }}\"\n"
+        + "}\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+    BuildResult result = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRender_web").build();
+
+    assertThat(result.task(":yttRender_web").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    assertThat(result.task(":yttRender_worker")).isNull();
+    assertThat(result.getOutput()).contains("configured yttRender_web")
+        .doesNotContain("configured yttRender_worker")
+        .contains("ytt tasks: [yttRender_api, yttRender_my_app, yttRender_web, yttRender_worker]");
+
+    String content = Files.readString(testProjectDir.resolve("build/distributions/api/web.yaml"));
+    assertThat(content).contains("ytt-lib").contains("web");
+  }
+
   @Test
   void firstRunProducesOutput_thenUpToDate_thenRerunsOnChange() throws IOException {
     // 1) First run: expect SUCCESS and output file created
@@ -141,6 +432,281 @@ public class YttPluginFunctionalTest {
     assertThat(result4.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
   }
 
+  @Test
+  void hermeticRendersAreReusedFromTheBuildCache() throws IOException {
+    Files.writeString(settingsFile,
+        "buildCache {\n  local {\n    directory = file('build-cache')\n  }\n}\n",
+        StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+    // not hermetic: undeclared environment variables may change the output
+    GradleRunner.create().withProjectDir(testProjectDir.toFile()).withPluginClasspath()
+        .withArguments("--build-cache", "yttRenderAll").build();
+    deleteDirectory(testProjectDir.resolve("build"));
+
+    BuildResult result1 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("--build-cache", "yttRenderAll").build();
+    assertThat(result1.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+
+    String updated = Files.readString(buildFile).replace("  outputDir = apiDistDir\n",
+        "  outputDir = apiDistDir\n  hermetic = true\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    GradleRunner.create().withProjectDir(testProjectDir.toFile()).withPluginClasspath()
+        .withArguments("--build-cache", "yttRenderAll").build();
+    deleteDirectory(testProjectDir.resolve("build"));
+
+    BuildResult result2 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("--build-cache", "yttRenderAll").build();
+    assertThat(result2.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.FROM_CACHE);
+    assertThat(testProjectDir.resolve("build/distributions/api/api.yaml")).exists();
+
+    // a different ytt binary at the same path is a different input
+    Files.writeString(fakeYtt, isWindows() ? "REM v2\r\n" : "# v2\n", StandardCharsets.UTF_8,
+        StandardOpenOption.APPEND);
+
+    BuildResult result3 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("--build-cache", "yttRenderAll").build();
+    assertThat(result3.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+  }
+
+  @Test
+  void hermeticEnvironmentOnlyPassesAllowListedVariables() throws IOException {
+    assumeFalse(isWindows());
+
+    Path envYtt = writeScript("env-ytt.sh",
+        "echo \"YTT_ENV=${YTT_ENV:-}\"\n" + "echo \"UNRELATED=${UNRELATED:-}\"\n");
+
+    Files.writeString(buildFile,
+        "ytt {\n" + "  yttExecutable = file('" + escapeForGroovy(envYtt) + "').absolutePath\n"
+            + "  hermetic = true\n" + "  passEnvironment('YTT_ENV')\n" + "}\n",
+        StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+    Map<String, String> env = new HashMap<>(System.getenv());
+    env.put("YTT_ENV", "dev");
+    env.put("UNRELATED", "one");
+
+    BuildResult result1 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withEnvironment(env).withArguments("yttRenderAll").build();
+
+    assertThat(result1.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    Path out = testProjectDir.resolve("build/distributions/api/api.yaml");
+    String content1 = Files.readString(out);
+    assertThat(content1).contains("YTT_ENV=dev").contains("UNRELATED=\n");
+
+    // unrelated change: neither invalidates the task nor changes the output
+    env.put("UNRELATED", "two");
+    BuildResult result2 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withEnvironment(env).withArguments("yttRenderAll").build();
+
+    assertThat(result2.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.UP_TO_DATE);
+    assertThat(Files.readString(out)).isEqualTo(content1);
+
+    // allow-listed change re-renders
+    env.put("YTT_ENV", "prod");
+    BuildResult result3 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withEnvironment(env).withArguments("yttRenderAll").build();
+
+    assertThat(result3.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    assertThat(Files.readString(out)).contains("YTT_ENV=prod");
+  }
+
+  @Test
+  void requestedSpecNeverConfiguresItsScheduledNeighbour() throws IOException {
+    String updated = Files.readString(buildFile).replace("  specs {\n",
+        "  specs {\n" + "    broken {\n"
+            + "      from('src/main/resources/cloudformation/api.yaml')\n" + "    }\n");
+    Files.writeString(buildFile, updated + "tasks.withType(com.formkiq.gradle.YttRenderTask)"
+        + ".configureEach { println \"configured ${name}\" }\n", StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    // broken renders slower, so api would be chained after it
+    Path history = testProjectDir.resolve(".gradle/ytt/render-history.properties");
+    Files.createDirectories(history.getParent());
+    Files.writeString(history, "\\:yttRender_api=1\n\\:yttRender_broken=100000\n",
+        StandardCharsets.UTF_8);
+
+    BuildResult result = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRender_api").build();
+
+    assertThat(result.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.SUCCESS);
+    assertThat(result.getOutput()).contains("configured yttRender_api")
+        .doesNotContain("configured yttRender_broken");
+
+    BuildResult all = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").buildAndFail();
+    assertThat(all.getOutput()).contains("No output configured for spec 'broken'");
+  }
+
+  @Test
+  void perFileSpecRejectsOutputDirAsInto() throws IOException {
+    Path templates = testProjectDir.resolve("src/main/ytt/manifests");
+    Files.createDirectories(templates);
+    Files.writeString(templates.resolve("a.yaml"), "a: 1\n", StandardCharsets.UTF_8);
+
+    Path other = testProjectDir.resolve("build/distributions/api/other.yaml");
+    Files.createDirectories(other.getParent());
+    Files.writeString(other, "keep: true\n", StandardCharsets.UTF_8);
+
+    String updated = Files.readString(buildFile).replace("  specs {\n",
+        "  specs {\n" + "    manifests {\n" + "      perFile(file('src/main/ytt/manifests'))\n"
+            + "      into('.')\n" + "    }\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRender_manifests").buildAndFail();
+
+    assertThat(result.getOutput()).contains("must render into a subdirectory of ytt.outputDir");
+    assertThat(other).exists();
+  }
+
+  @Test
+  void perFileSpecRendersOnlyChangedTemplates() throws IOException {
+    Path templates = testProjectDir.resolve("src/main/ytt/manifests");
+    Files.createDirectories(templates.resolve("nested"));
+    Files.writeString(templates.resolve("a.yaml"), "a: 1\n", StandardCharsets.UTF_8);
+    Files.writeString(templates.resolve("b.yaml"), "b: 1\n", StandardCharsets.UTF_8);
+    Files.writeString(templates.resolve("nested/c.yaml"), "c: 1\n", StandardCharsets.UTF_8);
+
+    String updated = Files.readString(buildFile).replace("  specs {\n",
+        "  specs {\n" + "    manifests {\n" + "      perFile('src/main/ytt/manifests')\n"
+            + "    }\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    Path outDir = testProjectDir.resolve("build/distributions/api/manifests");
+    BuildResult result1 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRender_manifests").build();
+
+    assertThat(result1.task(":yttRender_manifests").getOutcome())
+        .isEqualTo(TaskOutcome.SUCCESS);
+    assertThat(result1.getOutput()).contains("Rendered 3 template(s)");
+    assertThat(outDir.resolve("nested/c.yaml")).exists();
+
+    // one modified, one removed
+    Files.writeString(templates.resolve("a.yaml"), "a: 2\n", StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+    Files.delete(templates.resolve("b.yaml"));
+
+    BuildResult result2 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRender_manifests").build();
+
+    assertThat(result2.getOutput()).contains("Rendered 1 template(s)");
+    assertThat(outDir.resolve("a.yaml")).exists();
+    assertThat(outDir.resolve("b.yaml")).doesNotExist();
+
+    // data values change renders everything
+    updated = Files.readString(buildFile).replace("defaultDataValues.put('version', '1.0.0')",
+        "defaultDataValues.put('version', '2.0.0')");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result3 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRender_manifests").build();
+
+    assertThat(result3.getOutput()).contains("Rendered 2 template(s)");
+  }
+
+  @Test
+  void renderHistoryDispatchesSlowestSpecFirst() throws IOException {
+    assumeFalse(isWindows());
+
+    Path slowYtt = writeScript("slow-ytt.sh",
+        "case \"$*\" in *slow.yaml*) sleep 1 ;; esac\n" + "echo 'a: 1'\n");
+    Files.writeString(testProjectDir.resolve("fast.yaml"), "a: 1\n", StandardCharsets.UTF_8);
+    Files.writeString(testProjectDir.resolve("slow.yaml"), "a: 1\n", StandardCharsets.UTF_8);
+
+    Files.writeString(buildFile, "ytt {\n" + "  yttExecutable = file('"
+        + escapeForGroovy(slowYtt) + "').absolutePath\n" + "  specs {\n"
+        + "    fast { from('fast.yaml'); into('fast.yaml') }\n"
+        + "    slow { from('slow.yaml'); into('slow.yaml') }\n"
+        + "    bundled { from('fast.yaml'); archive('bundle.tar.gz') }\n" + "  }\n" + "}\n"
+        + "gradle.taskGraph.whenReady { g ->\n"
+        + "  g.allTasks.findAll { it instanceof com.formkiq.gradle.YttRenderTask }.each {\n"
+        + "    println \"${it.name} history=${it.renderHistory.present} \"\n"
+        + "        + \"after=${it.shouldRunAfter.getDependencies(it)*.name}\"\n" + "  }\n"
+        + "}\n", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+    // seeded history claims fast is the slow one
+    Path history = testProjectDir.resolve(".gradle/ytt/render-history.properties");
+    Files.createDirectories(history.getParent());
+    Files.writeString(history, "\\:yttRender_api=1\n\\:yttRender_fast=100000\n"
+        + "\\:yttRender_slow=1\n\\:yttArchive_bundle=1\n", StandardCharsets.UTF_8);
+
+    BuildResult result1 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").build();
+
+    List<String> order1 = result1.getTasks().stream().map(t -> t.getPath()).toList();
+    assertThat(order1.indexOf(":yttRender_fast")).isLessThan(order1.indexOf(":yttRender_slow"));
+    assertThat(result1.getOutput()).contains("yttRender_fast history=true after=[]")
+        .contains("yttArchive_bundle history=true after=[yttRender_fast]")
+        .contains("yttRender_api history=true after=[yttArchive_bundle]")
+        .contains("yttRender_slow history=true after=[yttRender_api]");
+
+    // measured durations are saved, rounded to a power of two
+    Properties saved = new Properties();
+    try (InputStream is = Files.newInputStream(history)) {
+      saved.load(is);
+    }
+    long slow = Long.parseLong(saved.getProperty(":yttRender_slow"));
+    assertThat(Long.bitCount(slow)).isEqualTo(1);
+    assertThat(slow).isGreaterThanOrEqualTo(512L)
+        .isGreaterThan(Long.parseLong(saved.getProperty(":yttRender_fast")))
+        .isGreaterThan(Long.parseLong(saved.getProperty(":yttArchive_bundle")));
+
+    // and reloaded by the next build
+    BuildResult result2 = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll", "--rerun-tasks").build();
+
+    List<String> order2 = result2.getTasks().stream().map(t -> t.getPath()).toList();
+    assertThat(order2.indexOf(":yttRender_slow")).isLessThan(order2.indexOf(":yttRender_fast"));
+    assertThat(result2.getOutput()).contains("yttRender_slow history=true after=[]");
+  }
+
+  @Test
+  void hungRenderIsKilledOnceMaxRenderDurationIsCrossed() throws IOException {
+    assumeFalse(isWindows());
+
+    Path hung = writeScript("hung-ytt.sh", "echo 'a: 1'\n" + "sleep 60\n");
+
+    String updated = Files.readString(buildFile)
+        .replace(escapeForGroovy(fakeYtt), escapeForGroovy(hung))
+        .replace("      into('api.yaml')\n", "      into('api.yaml')\n"
+            + "      maxRenderDuration.set(java.time.Duration.ofSeconds(1))\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    long start = System.nanoTime();
+    BuildResult result = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").buildAndFail();
+
+    assertThat(result.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.FAILED);
+    assertThat(result.getOutput()).contains("exceeded maxRenderDuration (PT1S)");
+    // the child sleep is killed too, rather than holding the output open for a minute
+    assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(45));
+  }
+
+  @Test
+  void runawayOutputFailsOnceMaxOutputBytesIsCrossed() throws IOException {
+    assumeFalse(isWindows());
+
+    Path runaway = writeScript("runaway-ytt.sh", "yes 'a: 1'\n");
+
+    String updated = Files.readString(buildFile)
+        .replace(escapeForGroovy(fakeYtt), escapeForGroovy(runaway))
+        .replace("      into('api.yaml')\n",
+            "      into('api.yaml')\n      maxOutputBytes.set(1024L * 1024L)\n");
+    Files.writeString(buildFile, updated, StandardCharsets.UTF_8,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    BuildResult result = GradleRunner.create().withProjectDir(testProjectDir.toFile())
+        .withPluginClasspath().withArguments("yttRenderAll").buildAndFail();
+
+    assertThat(result.task(":yttRender_api").getOutcome()).isEqualTo(TaskOutcome.FAILED);
+    assertThat(result.getOutput()).contains("exceeded maxOutputBytes");
+  }
+
   @BeforeEach
   void setup() throws IOException {
     // Basic Gradle project
@@ -0,0 +1,186 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Nested;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Renders several ytt specs straight into a reproducible .tar.gz. Entries are rendered
+ * concurrently, up to {@link #getMaxParallelRenders()} at a time, and written in entry name
+ * order. Each rendered entry is kept in memory, or in a temporary file once it exceeds
+ * {@link YttSpillBuffer#DEFAULT_THRESHOLD}.
+ */
+@CacheableTask
+public abstract class YttArchiveTask extends DefaultTask implements YttRenderTask {
+
+  /** Archive Entries. */
+  private final List<YttArchiveEntry> entries = new ArrayList<>();
+
+  /**
+   * Get Archive File.
+   *
+   * @return {@link RegularFileProperty}
+   */
+  @OutputFile
+  public abstract RegularFileProperty getArchiveFile();
+
+  /**
+   * Get Archive Entries.
+   *
+   * @return {@link List} {@link YttArchiveEntry}
+   */
+  @Nested
+  public List<YttArchiveEntry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * Maximum number of entries rendered at the same time (default: available processors).
+   *
+   * @return {@link Property}
+   */
+  @Internal
+  public abstract Property<Integer> getMaxParallelRenders();
+
+  /**
+   * Ytt Executable.
+   *
+   * @return {@link Property}
+   */
+  @Input
+  public abstract Property<String> getYttExecutable();
+
+  /**
+   * Render one entry into its own {@link YttSpillBuffer}, closed again if the render fails.
+   *
+   * @param entry {@link YttArchiveEntry}
+   * @param cmd {@link List} {@link String}
+   * @param spill {@link File}
+   * @param target {@link String}
+   * @return {@link YttSpillBuffer}
+   * @throws Exception Exception
+   */
+  private YttSpillBuffer render(final YttArchiveEntry entry, final List<String> cmd,
+      final File spill, final String target) throws Exception {
+    // tar headers carry the entry size, so each render is buffered, spilling large ones
+    YttSpillBuffer buffer = new YttSpillBuffer(spill, YttSpillBuffer.DEFAULT_THRESHOLD);
+    try {
+      YttOutputLimiter os = YttRenderer.limit(entry, buffer);
+      YttRenderer.render(entry, cmd, os, target);
+      getLogger().lifecycle("Rendered {} document(s), {} bytes into {}", os.getDocuments(),
+          os.getBytes(), entry.getEntryName().get());
+      return buffer;
+    } catch (Exception e) {
+      buffer.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Run Ytt for every entry concurrently, writing each output as a tar entry in entry name
+   * order. After a failed render, entries not started yet are skipped and the first failure is
+   * rethrown once the running ones finished.
+   *
+   * @throws Exception Exception
+   */
+  @TaskAction
+  public void runYtt() throws Exception {
+    long start = System.nanoTime();
+    File archive = getArchiveFile().get().getAsFile();
+    Path parent = archive.toPath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    List<YttArchiveEntry> sorted = new ArrayList<>(entries);
+    sorted.sort(Comparator.comparing(e -> e.getEntryName().get()));
+
+    int parallel = Math.min(sorted.size(),
+        getMaxParallelRenders().getOrElse(Runtime.getRuntime().availableProcessors()));
+    ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallel));
+
+    AtomicBoolean failed = new AtomicBoolean();
+
+    try (YttTarGzWriter tar = new YttTarGzWriter(new FileOutputStream(archive))) {
+      List<Future<YttSpillBuffer>> renders = new ArrayList<>();
+      for (int i = 0; i < sorted.size(); i++) {
+        YttArchiveEntry entry = sorted.get(i);
+        List<String> cmd = YttRenderer.command(entry, getYttExecutable().get(),
+            new File(getTemporaryDir(), "entry-" + i));
+        getLogger().lifecycle("Running: {}", String.join(" ", cmd));
+
+        File spill = new File(getTemporaryDir(), "entry-" + i + ".out");
+        String target = archive + "!" + entry.getEntryName().get();
+        renders.add(pool.submit(() -> failed.get() ? null : render(entry, cmd, spill, target)));
+      }
+
+      Throwable failure = null;
+      for (int i = 0; i < sorted.size(); i++) {
+        // every buffer is drained and closed, even after a failure, so no spill file is left
+        try (YttSpillBuffer buffer = renders.get(i).get()) {
+          if (failure == null) {
+            tar.putEntry(sorted.get(i).getEntryName().get(), buffer);
+          }
+        } catch (ExecutionException | IOException e) {
+          if (failure == null) {
+            failure = e instanceof ExecutionException ? e.getCause() : e;
+            failed.set(true);
+          }
+        }
+      }
+
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      } else if (failure != null) {
+        throw (Exception) failure;
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+
+    recordDuration(start);
+  }
+}
@@ -0,0 +1,165 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Data values conversions: the sorted "key=value" form used as task inputs, properties files
+ * and the JSON data values files generated to layer values for ytt.
+ */
+final class YttDataValues {
+
+  private YttDataValues() {
+  }
+
+  /**
+   * Read a properties file as data values.
+   *
+   * @param file {@link File}
+   * @return {@link Map}
+   * @throws IOException IOException
+   */
+  static Map<String, String> load(final File file) throws IOException {
+    Properties props = new Properties();
+    try (Reader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      props.load(r);
+    }
+
+    Map<String, String> m = new TreeMap<>();
+    props.stringPropertyNames().forEach(k -> m.put(k, props.getProperty(k)));
+    return m;
+  }
+
+  /**
+   * Sorted "key=value" list of data values, a deterministic task input.
+   *
+   * @param map {@link Map}
+   * @return {@link List} {@link String}
+   */
+  static List<String> normalize(final Map<String, String> map) {
+    if (map == null || map.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    List<String> list = new ArrayList<>(map.size());
+    map.entrySet().stream().sorted(Map.Entry.comparingByKey())
+        .forEach(e -> list.add(e.getKey() + "=" + Objects.toString(e.getValue(), "")));
+    return list;
+  }
+
+  private static String quote(final String value) {
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : value.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < ' ') {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  /**
+   * Data values from their {@link #normalize(Map)} form.
+   *
+   * @param list {@link List} {@link String}
+   * @return {@link Map}
+   */
+  static Map<String, String> toMap(final List<String> list) {
+    Map<String, String> m = new LinkedHashMap<>();
+    for (String kv : list) {
+      int i = kv.indexOf('=');
+      if (i < 0) {
+        continue;
+      }
+
+      m.put(kv.substring(0, i), kv.substring(i + 1));
+    }
+    return m;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void toJson(final StringBuilder sb, final Map<String, Object> map) {
+    sb.append('{');
+    String sep = "";
+    for (Map.Entry<String, Object> e : map.entrySet()) {
+      sb.append(sep).append(quote(e.getKey())).append(':');
+      if (e.getValue() instanceof Map) {
+        toJson(sb, (Map<String, Object>) e.getValue());
+      } else {
+        sb.append(quote(String.valueOf(e.getValue())));
+      }
+      sep = ",";
+    }
+    sb.append('}');
+  }
+
+  /**
+   * Write data values as a JSON data values file, dotted keys become nested keys like they do
+   * for --data-value.
+   *
+   * @param file {@link File}
+   * @param values {@link Map}
+   * @return {@link File}
+   * @throws IOException IOException
+   */
+  @SuppressWarnings("unchecked")
+  static File write(final File file, final Map<String, String> values) throws IOException {
+    Map<String, Object> root = new TreeMap<>();
+    values.forEach((k, v) -> {
+      Map<String, Object> m = root;
+      String[] path = k.split("\\.");
+      for (int i = 0; i < path.length - 1; i++) {
+        Object child = m.get(path[i]);
+        if (!(child instanceof Map)) {
+          child = new TreeMap<String, Object>();
+          m.put(path[i], child);
+        }
+        m = (Map<String, Object>) child;
+      }
+      m.put(path[path.length - 1], v);
+    });
+
+    StringBuilder sb = new StringBuilder();
+    toJson(sb, root);
+    Files.createDirectories(file.toPath().getParent());
+    Files.writeString(file.toPath(), sb.append('\n').toString(), StandardCharsets.UTF_8);
+    return file;
+  }
+}
@@ -25,7 +25,9 @@ package com.formkiq.gradle;
 
 import groovy.lang.Closure;
 import org.gradle.api.Project;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.file.DirectoryProperty;
@@ -33,6 +35,7 @@ import org.gradle.api.NamedDomainObjectContainer;
 import org.gradle.util.internal.ConfigureUtil;
 
 import javax.inject.Inject;
+import java.util.Arrays;
 
 /**
  * Ytt Extension.
@@ -47,6 +50,18 @@ public class YttExtension {
   private final DirectoryProperty outputDir;
   /** {@link com.formkiq.gradle.YttSpec}. */
   private final NamedDomainObjectContainer<YttSpec> specs;
+  /** Templates Directory, each subdirectory becomes a spec. */
+  private final DirectoryProperty templatesDir;
+  /** Shared library files / directories passed to every discovered spec. */
+  private final ConfigurableFileCollection libraries;
+  /** Default Data Values Files (YAML, JSON or properties). */
+  private final ConfigurableFileCollection defaultDataValuesFiles;
+  /** Hermetic, clear the ytt process environment except for passEnvironment. */
+  private final Property<Boolean> hermetic;
+  /** Maximum number of ytt renders running at the same time. */
+  private final Property<Integer> maxParallelRenders;
+  /** Environment variable names passed through to ytt. */
+  private final ListProperty<String> passEnvironment;
 
   /**
    * Constructor.
@@ -61,6 +76,21 @@ public class YttExtension {
     this.outputDir = objects.directoryProperty();
     this.outputDir.convention(project.getLayout().getBuildDirectory().dir("ytt"));
     this.specs = objects.domainObjectContainer(YttSpec.class, name -> new YttSpec(name, objects));
+    this.templatesDir = objects.directoryProperty();
+    this.libraries = objects.fileCollection();
+    this.defaultDataValuesFiles = objects.fileCollection();
+    this.hermetic = objects.property(Boolean.class).convention(false);
+    this.maxParallelRenders = objects.property(Integer.class);
+    this.passEnvironment = objects.listProperty(String.class);
+  }
+
+  /**
+   * Add default data values files passed to all specs, read at execution time.
+   *
+   * @param paths {@link Object}
+   */
+  public void dataValuesFrom(final Object... paths) {
+    defaultDataValuesFiles.from(Arrays.asList(paths));
   }
 
   /**
@@ -72,6 +102,33 @@ public class YttExtension {
     return defaultDataValues;
   }
 
+  /**
+   * Get Default Data Values Files.
+   *
+   * @return {@link ConfigurableFileCollection}
+   */
+  public ConfigurableFileCollection getDefaultDataValuesFiles() {
+    return defaultDataValuesFiles;
+  }
+
+  /**
+   * Get Hermetic.
+   *
+   * @return {@link Property}
+   */
+  public Property<Boolean> getHermetic() {
+    return hermetic;
+  }
+
+  /**
+   * Get Max Parallel Renders.
+   *
+   * @return {@link Property}
+   */
+  public Property<Integer> getMaxParallelRenders() {
+    return maxParallelRenders;
+  }
+
   /**
    * Get {@link DirectoryProperty}.
    * 
@@ -81,6 +138,24 @@ public class YttExtension {
     return outputDir;
   }
 
+  /**
+   * Get Shared Libraries.
+   *
+   * @return {@link ConfigurableFileCollection}
+   */
+  public ConfigurableFileCollection getLibraries() {
+    return libraries;
+  }
+
+  /**
+   * Get Pass Environment.
+   *
+   * @return {@link ListProperty}
+   */
+  public ListProperty<String> getPassEnvironment() {
+    return passEnvironment;
+  }
+
   /**
    * Get {@link NamedDomainObjectContainer}.
    * 
@@ -90,6 +165,15 @@ public class YttExtension {
     return specs;
   }
 
+  /**
+   * Get Templates Directory.
+   *
+   * @return {@link DirectoryProperty}
+   */
+  public DirectoryProperty getTemplatesDir() {
+    return templatesDir;
+  }
+
   /**
    * Get Ytt Executable.
    * 
@@ -99,6 +183,24 @@ public class YttExtension {
     return yttExecutable;
   }
 
+  /**
+   * Add shared library files / directories to every discovered spec.
+   *
+   * @param paths {@link Object}
+   */
+  public void libraries(final Object... paths) {
+    libraries.from(Arrays.asList(paths));
+  }
+
+  /**
+   * Allow-list environment variables passed through to ytt. Their values become task inputs.
+   *
+   * @param names {@link String}
+   */
+  public void passEnvironment(final String... names) {
+    passEnvironment.addAll(names);
+  }
+
   /**
    * Set {@link Closure}.
    *
@@ -0,0 +1,142 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Counts the bytes and YAML documents written by ytt, failing the write as soon as a limit is
+ * crossed. A document starts at the first content of the output or after a "---" line, so
+ * separators without content after them do not count.
+ */
+class YttOutputLimiter extends FilterOutputStream {
+
+  /** Length of the "---" document separator. */
+  private static final int SEPARATOR_LENGTH = 3;
+
+  /** Max bytes, 0 or less for no limit. */
+  private final long maxBytes;
+  /** Max documents, 0 or less for no limit. */
+  private final long maxDocuments;
+  /** Bytes written. */
+  private long bytes;
+  /** Documents written. */
+  private long documents;
+  /** Number of '-' matched at the start of the current line, -1 when not at a separator. */
+  private int dashes;
+  /** Whether a separator was seen and its document has no content yet. */
+  private boolean pending;
+
+  /**
+   * constructor.
+   *
+   * @param os {@link OutputStream}
+   * @param maxOutputBytes long, 0 or less for no limit
+   * @param maxOutputDocuments long, 0 or less for no limit
+   */
+  YttOutputLimiter(final OutputStream os, final long maxOutputBytes,
+      final long maxOutputDocuments) {
+    super(os);
+    this.maxBytes = maxOutputBytes;
+    this.maxDocuments = maxOutputDocuments;
+  }
+
+  private static boolean isWhitespace(final int b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  private void checkDocuments() throws IOException {
+    if (maxDocuments > 0 && documents > maxDocuments) {
+      throw new IOException("ytt output exceeded maxDocuments (" + maxDocuments + ")");
+    }
+  }
+
+  private void content() throws IOException {
+    if (documents == 0 || pending) {
+      documents++;
+      pending = false;
+      checkDocuments();
+    }
+  }
+
+  /**
+   * Get Bytes written.
+   *
+   * @return long
+   */
+  long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * Get Documents written.
+   *
+   * @return long
+   */
+  long getDocuments() {
+    return documents;
+  }
+
+  private void scan(final int b) throws IOException {
+    if (dashes >= 0 && dashes < SEPARATOR_LENGTH && b == '-') {
+      dashes++;
+    } else if (dashes == SEPARATOR_LENGTH && isWhitespace(b)) {
+      separator();
+      dashes = -1;
+    } else {
+      if (dashes > 0 || !isWhitespace(b)) {
+        content();
+      }
+      dashes = -1;
+    }
+
+    if (b == '\n') {
+      dashes = 0;
+    }
+  }
+
+  private void separator() {
+    pending = true;
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    bytes += len;
+    if (maxBytes > 0 && bytes > maxBytes) {
+      throw new IOException("ytt output exceeded maxOutputBytes (" + maxBytes + ")");
+    }
+
+    for (int i = off; i < off + len; i++) {
+      scan(b[i]);
+    }
+    out.write(b, off, len);
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+}
@@ -0,0 +1,154 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import org.gradle.api.DefaultTask;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.FileSystemOperations;
+import org.gradle.api.file.FileType;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.CacheableTask;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputDirectory;
+import org.gradle.api.tasks.OutputDirectory;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+import org.gradle.work.ChangeType;
+import org.gradle.work.FileChange;
+import org.gradle.work.Incremental;
+import org.gradle.work.InputChanges;
+
+import javax.inject.Inject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Renders every file of a templates directory to its own output file. Only added or modified
+ * templates are re-rendered and outputs of removed templates are deleted; a change to the
+ * shared input files or data values renders everything.
+ */
+@CacheableTask
+public abstract class YttPerFileRenderTask extends DefaultTask
+    implements YttRenderInputs, YttRenderTask {
+
+  /**
+   * {@link FileSystemOperations}.
+   *
+   * @return {@link FileSystemOperations}
+   */
+  @Inject
+  protected abstract FileSystemOperations getFileSystemOperations();
+
+  /**
+   * Get Output Directory.
+   *
+   * @return {@link DirectoryProperty}
+   */
+  @OutputDirectory
+  public abstract DirectoryProperty getOutputDir();
+
+  /**
+   * Templates Directory, each file renders to the same relative path in the output directory.
+   *
+   * @return {@link DirectoryProperty}
+   */
+  @Incremental
+  @InputDirectory
+  @PathSensitive(PathSensitivity.RELATIVE)
+  public abstract DirectoryProperty getTemplatesDir();
+
+  /**
+   * Ytt Executable.
+   *
+   * @return {@link Property}
+   */
+  @Input
+  public abstract Property<String> getYttExecutable();
+
+  private void renderTemplate(final List<String> baseCmd, final File template)
+      throws Exception {
+    Path root = getTemplatesDir().get().getAsFile().toPath();
+    File outFile = getOutputDir().get().getAsFile().toPath()
+        .resolve(root.relativize(template.toPath())).toFile();
+
+    List<String> cmd = new ArrayList<>(baseCmd);
+    cmd.add("-f");
+    cmd.add(template.getAbsolutePath());
+    getLogger().info("Running: {}", String.join(" ", cmd));
+
+    Files.createDirectories(outFile.toPath().getParent());
+    try (YttOutputLimiter os = YttRenderer.limit(this, new FileOutputStream(outFile))) {
+      YttRenderer.render(this, cmd, os, outFile.toString());
+      getLogger().info("Rendered {} document(s), {} bytes into {}", os.getDocuments(),
+          os.getBytes(), outFile);
+    }
+  }
+
+  /**
+   * Run Ytt for changed templates, or for all of them on a full render.
+   *
+   * @param inputChanges {@link InputChanges}
+   * @throws Exception Exception
+   */
+  @TaskAction
+  public void runYtt(final InputChanges inputChanges) throws Exception {
+    long start = System.nanoTime();
+    if (!inputChanges.isIncremental()) {
+      File outputDir = getOutputDir().get().getAsFile();
+      getFileSystemOperations().delete(d -> d.delete(outputDir));
+      Files.createDirectories(outputDir.toPath());
+    }
+
+    Path root = getTemplatesDir().get().getAsFile().toPath();
+    Path outputDir = getOutputDir().get().getAsFile().toPath();
+    List<String> baseCmd =
+        YttRenderer.command(this, getYttExecutable().get(), getTemporaryDir());
+    int rendered = 0;
+
+    for (FileChange change : inputChanges.getFileChanges(getTemplatesDir())) {
+      if (change.getFileType() == FileType.DIRECTORY) {
+        continue;
+      }
+
+      if (change.getChangeType() == ChangeType.REMOVED) {
+        Files.deleteIfExists(outputDir.resolve(root.relativize(change.getFile().toPath())));
+      } else {
+        renderTemplate(baseCmd, change.getFile());
+        rendered++;
+      }
+    }
+
+    getLogger().lifecycle("Rendered {} template(s) into {}", rendered, outputDir);
+
+    // incremental runs only render a subset, so only full renders are representative
+    if (!inputChanges.isIncremental()) {
+      recordDuration(start);
+    }
+  }
+}
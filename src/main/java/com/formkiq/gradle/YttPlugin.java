@@ -25,12 +25,148 @@ package com.formkiq.gradle;
 
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
+import org.gradle.api.Task;
+import org.gradle.api.provider.Provider;
+import org.gradle.api.tasks.TaskProvider;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 /**
  * Gradle Ytt Plugin.
  */
 public class YttPlugin implements Plugin<Project> {
 
+  /** Task Name Prefix. */
+  private static final String TASK_PREFIX = "yttRender_";
+
+  /**
+   * Whether a task of this project is requested on the command line, by name or path.
+   *
+   * @param project {@link Project}
+   * @param requested {@link List} {@link String}
+   * @param name {@link String}
+   * @return boolean
+   */
+  private static boolean isRequested(final Project project, final List<String> requested,
+      final String name) {
+    return requested.contains(name) || requested.contains(project.absoluteProjectPath(name));
+  }
+
+  /**
+   * Whether the outputs of a render task can be reused from the build cache. Only hermetic
+   * renders are, since otherwise undeclared environment variables may change the output, and
+   * hash("sha256") adds a random value to every render.
+   *
+   * @param task {@link Task}
+   * @return boolean
+   */
+  private static boolean isCacheable(final Task task) {
+    if (task instanceof YttArchiveTask) {
+      List<YttArchiveEntry> entries = ((YttArchiveTask) task).getEntries();
+      return !entries.isEmpty() && entries.stream().allMatch(YttPlugin::isCacheable);
+    }
+    return task instanceof YttRenderInputs && isCacheable((YttRenderInputs) task);
+  }
+
+  private static boolean isCacheable(final YttRenderInputs inputs) {
+    return inputs.getHermetic().getOrElse(false)
+        && !"sha256".equals(inputs.getHash().getOrNull());
+  }
+
+  /**
+   * Archive entry name of a spec. Entries must stay inside the archive, so absolute names and
+   * names escaping it with '..' are rejected.
+   *
+   * @param spec {@link YttSpec}
+   * @return {@link String}
+   */
+  private static String archiveEntryName(final YttSpec spec) {
+    String into = spec.getIntoFileName().getOrElse(spec.getName() + ".yaml");
+    String name = relativePath(into);
+    if (name == null) {
+      throw new IllegalArgumentException("Archived spec '" + spec.getName()
+          + "' must render into a relative entry name, got into(\"" + into + "\").");
+    }
+    return name;
+  }
+
+  /**
+   * Per-file output directory relative to ytt.outputDir. A full render deletes this directory,
+   * so it must be a subdirectory of ytt.outputDir and never ytt.outputDir itself.
+   *
+   * @param spec {@link YttSpec}
+   * @return {@link String}
+   */
+  private static String perFileInto(final YttSpec spec) {
+    String into = spec.getIntoFileName().getOrElse(spec.getName());
+    String dir = relativePath(into);
+    if (dir == null) {
+      throw new IllegalArgumentException("Per-file spec '" + spec.getName()
+          + "' must render into a subdirectory of ytt.outputDir, got into(\"" + into + "\").");
+    }
+    return dir;
+  }
+
+  /**
+   * Normalized '/' separated form of a relative into(...) path, null when it is empty, absolute
+   * or escapes its base directory.
+   *
+   * @param into {@link String}
+   * @return {@link String}
+   */
+  private static String relativePath(final String into) {
+    Path path = Paths.get(into).normalize();
+    if (path.isAbsolute() || path.toString().isEmpty() || path.startsWith("..")) {
+      return null;
+    }
+    return path.toString().replace(File.separatorChar, '/');
+  }
+
+  /**
+   * Task name suffix for a spec or archive name, characters outside [A-Za-z0-9_-] become '_'.
+   *
+   * @param name {@link String}
+   * @return {@link String}
+   */
+  private static String taskSuffix(final String name) {
+    return name.replaceAll("[^A-Za-z0-9_-]", "_");
+  }
+
+  /**
+   * Ytt binary ProcessBuilder runs for an executable: the file itself when it names a path,
+   * otherwise the first match on the PATH.
+   *
+   * @param executable {@link String}
+   * @return {@link List} {@link File}, empty when not found
+   */
+  private static List<File> yttBinary(final String executable) {
+    File file = new File(executable);
+    if (file.getParent() != null) {
+      return file.isFile() ? List.of(file) : List.of();
+    }
+
+    String path = System.getenv("PATH");
+    for (String dir : path != null ? path.split(File.pathSeparator) : new String[0]) {
+      for (String name : List.of(executable, executable + ".exe")) {
+        File candidate = new File(dir, name);
+        if (candidate.isFile()) {
+          return List.of(candidate);
+        }
+      }
+    }
+    return List.of();
+  }
+
   @Override
   public void apply(final Project project) {
     YttExtension ext = project.getExtensions().create("ytt", YttExtension.class);
@@ -40,44 +176,279 @@ public class YttPlugin implements Plugin<Project> {
       t.setDescription("Render all ytt templates");
     });
 
-    project.afterEvaluate(p -> ext.getSpecs().all(spec -> {
-      String taskName = "yttRender_" + spec.getName();
+    project.getTasks().withType(YttRenderTask.class).configureEach(t -> {
+      t.getYttBinary().from(t.getYttExecutable().map(YttPlugin::yttBinary));
+      t.getOutputs().doNotCacheIf("ytt renders are only cached when hermetic and not hashed "
+          + "with sha256", task -> !isCacheable(task));
+    });
 
-      var tp = project.getTasks().register(taskName, AbstractYttRenderTask.class, t -> {
-        t.setGroup("ytt");
-        t.setDescription("Render ytt spec '" + spec.getName() + "'");
-        t.getYttExecutable().set(ext.getYttExecutable());
-        t.getInputFiles().from(spec.getInputFiles());
-
-        t.getHash().set(spec.getHash());
-
-        // Merge default + spec data-values
-        t.getDataValues().putAll(ext.getDefaultDataValues());
-        t.getDataValues().putAll(spec.getDataValues());
-
-        // NEW: lazy input binding so changes invalidate up-to-date correctly
-        t.getDataValuesNormalized()
-            .set(t.getDataValues().map(AbstractYttRenderTask::normalizeDataValues));
-
-        // Resolve output file:
-        if (spec.getOutputFile().isPresent()) {
-          // Absolute/explicit file set on spec
-          t.getOutputFile().set(spec.getOutputFile());
-        } else if (spec.getIntoFileName().isPresent()) {
-          if (!ext.getOutputDir().isPresent()) {
-            throw new IllegalArgumentException(
-                "ytt.outputDir must be set to use spec.into(\"file.yaml\") for spec '"
-                    + spec.getName() + "'.");
-          }
-          var resolved = ext.getOutputDir().file(spec.getIntoFileName().get());
-          t.getOutputFile().set(resolved);
+    project.afterEvaluate(p -> {
+      Map<String, TaskProvider<YttArchiveTask>> archives = new HashMap<>();
+      ext.getSpecs().all(spec -> {
+        if (!spec.getPerFileDir().getFrom().isEmpty()) {
+          registerPerFileTask(project, ext, spec);
+        } else if (spec.getArchiveFileName().isPresent()) {
+          addArchiveEntry(project, ext, spec, archives);
         } else {
-          throw new IllegalArgumentException("No output configured for spec '" + spec.getName()
-              + "'. Use spec.into(\"file.yaml\") or spec.outputFile.set(...).");
+          registerTask(project, ext, TASK_PREFIX + spec.getName(), () -> spec);
         }
       });
+      registerDiscoveredSpecs(project, ext);
+      scheduleLongestFirst(project, ext);
+    });
+  }
+
+  /**
+   * Add a spec as an entry of its archive task, registering the task on first use.
+   *
+   * @param project {@link Project}
+   * @param ext {@link YttExtension}
+   * @param spec {@link YttSpec}
+   * @param archives {@link Map} archive file name to task
+   */
+  private void addArchiveEntry(final Project project, final YttExtension ext, final YttSpec spec,
+      final Map<String, TaskProvider<YttArchiveTask>> archives) {
+    String archiveName = spec.getArchiveFileName().get();
+    var tp = archives.computeIfAbsent(archiveName, n -> {
+      String taskName = "yttArchive_" + taskSuffix(n.replaceAll("\\.(tar\\.gz|tgz)$", ""));
+      var archive = project.getTasks().register(taskName, YttArchiveTask.class, t -> {
+        t.setGroup("ytt");
+        t.setDescription("Render ytt specs into '" + n + "'");
+        t.getYttExecutable().set(ext.getYttExecutable());
+        t.getMaxParallelRenders().set(ext.getMaxParallelRenders());
+        t.getArchiveFile().set(ext.getOutputDir().file(n));
+      });
+      project.getTasks().named("yttRenderAll").configure(task -> task.dependsOn(archive));
+      return archive;
+    });
 
-      project.getTasks().named("yttRenderAll").configure(task -> task.dependsOn(tp));
-    }));
+    tp.configure(t -> {
+      String entryName = archiveEntryName(spec);
+      if (t.getEntries().stream().anyMatch(e -> entryName.equals(e.getEntryName().get()))) {
+        throw new IllegalArgumentException("Archived spec '" + spec.getName()
+            + "' renders into entry '" + entryName + "', which '" + archiveName
+            + "' already contains.");
+      }
+
+      YttArchiveEntry entry = project.getObjects().newInstance(YttArchiveEntry.class);
+      entry.getEntryName().set(entryName);
+      configureInputs(project, entry, ext, spec);
+      t.getEntries().add(entry);
+    });
+  }
+
+  /**
+   * Configure the {@link YttRenderInputs} shared by every render from the extension and spec.
+   *
+   * @param project {@link Project}
+   * @param inputs {@link YttRenderInputs}
+   * @param ext {@link YttExtension}
+   * @param spec {@link YttSpec}
+   */
+  private void configureInputs(final Project project, final YttRenderInputs inputs,
+      final YttExtension ext, final YttSpec spec) {
+    inputs.getInputFiles().from(spec.getInputFiles());
+    inputs.getHash().set(spec.getHash());
+
+    // default and spec data-values are kept apart so spec files override defaults
+    inputs.getDefaultDataValues().putAll(ext.getDefaultDataValues());
+    inputs.getDataValues().putAll(spec.getDataValues());
+
+    // lazy input binding so changes invalidate up-to-date correctly
+    inputs.getDefaultDataValuesNormalized()
+        .set(inputs.getDefaultDataValues().map(YttDataValues::normalize));
+    inputs.getDataValuesNormalized()
+        .set(inputs.getDataValues().map(YttDataValues::normalize));
+    inputs.getDefaultDataValuesFiles().from(ext.getDefaultDataValuesFiles());
+    inputs.getDataValuesFiles().from(spec.getDataValuesFiles());
+
+    inputs.getHermetic().set(ext.getHermetic());
+    inputs.getEnvironment().putAll(environment(project, ext, spec));
+
+    inputs.getMaxOutputBytes().set(spec.getMaxOutputBytes());
+    inputs.getMaxDocuments().set(spec.getMaxDocuments());
+    inputs.getMaxRenderDuration().set(spec.getMaxRenderDuration());
+  }
+
+  /**
+   * Configure a render task from a {@link YttSpec}.
+   *
+   * @param project {@link Project}
+   * @param t {@link AbstractYttRenderTask}
+   * @param ext {@link YttExtension}
+   * @param spec {@link YttSpec}
+   */
+  private void configureTask(final Project project, final AbstractYttRenderTask t,
+      final YttExtension ext, final YttSpec spec) {
+    t.setGroup("ytt");
+    t.setDescription("Render ytt spec '" + spec.getName() + "'");
+    t.getYttExecutable().set(ext.getYttExecutable());
+    configureInputs(project, t, ext, spec);
+
+    // Resolve output file:
+    if (spec.getOutputFile().isPresent()) {
+      // Absolute/explicit file set on spec
+      t.getOutputFile().set(spec.getOutputFile());
+    } else if (spec.getIntoFileName().isPresent()) {
+      if (!ext.getOutputDir().isPresent()) {
+        throw new IllegalArgumentException(
+            "ytt.outputDir must be set to use spec.into(\"file.yaml\") for spec '"
+                + spec.getName() + "'.");
+      }
+      var resolved = ext.getOutputDir().file(spec.getIntoFileName().get());
+      t.getOutputFile().set(resolved);
+    } else {
+      throw new IllegalArgumentException("No output configured for spec '" + spec.getName()
+          + "'. Use spec.into(\"file.yaml\") or spec.outputFile.set(...).");
+    }
+  }
+
+  /**
+   * Allow-listed environment variables of the extension and spec, unset variables are skipped.
+   *
+   * @param project {@link Project}
+   * @param ext {@link YttExtension}
+   * @param spec {@link YttSpec}
+   * @return {@link Map}
+   */
+  private Map<String, String> environment(final Project project, final YttExtension ext,
+      final YttSpec spec) {
+    Map<String, String> env = new TreeMap<>();
+    List<String> names = new ArrayList<>(ext.getPassEnvironment().get());
+    names.addAll(spec.getPassEnvironment().get());
+    for (String name : names) {
+      String value = project.getProviders().environmentVariable(name).getOrNull();
+      if (value != null) {
+        env.put(name, value);
+      }
+    }
+    return env;
+  }
+
+  /**
+   * Register a spec for every subdirectory of ytt.templatesDir. Only the directory listing
+   * happens at configuration time, the {@link YttSpec} itself is created when the task is
+   * realized. Explicitly declared specs with the same name take precedence. Hidden and
+   * '_' prefixed directories (such as ytt's _ytt_lib) are skipped, and characters not allowed
+   * in task names are replaced in the task name.
+   *
+   * @param project {@link Project}
+   * @param ext {@link YttExtension}
+   */
+  private void registerDiscoveredSpecs(final Project project, final YttExtension ext) {
+    if (!ext.getTemplatesDir().isPresent()) {
+      return;
+    }
+
+    File[] dirs = ext.getTemplatesDir().get().getAsFile().listFiles(f -> f.isDirectory()
+        && !f.getName().startsWith(".") && !f.getName().startsWith("_"));
+    if (dirs == null) {
+      return;
+    }
+
+    Arrays.sort(dirs, Comparator.comparing(File::getName));
+    for (File dir : dirs) {
+      String name = dir.getName();
+      if (ext.getSpecs().findByName(name) == null) {
+        String taskName = TASK_PREFIX + taskSuffix(name);
+        if (project.getTasks().getNames().contains(taskName)) {
+          throw new IllegalArgumentException("Discovered spec directory '" + name
+              + "' maps to task '" + taskName + "', which already exists. Rename the directory "
+              + "or declare the spec explicitly.");
+        }
+
+        registerTask(project, ext, taskName, () -> {
+          YttSpec spec = new YttSpec(name, project.getObjects());
+          spec.from(dir, ext.getLibraries());
+          spec.into(name + ".yaml");
+          return spec;
+        });
+      }
+    }
+  }
+
+  /**
+   * Register the incremental render task of a per-file spec.
+   *
+   * @param project {@link Project}
+   * @param ext {@link YttExtension}
+   * @param spec {@link YttSpec}
+   */
+  private void registerPerFileTask(final Project project, final YttExtension ext,
+      final YttSpec spec) {
+    var tp = project.getTasks().register(TASK_PREFIX + spec.getName(), YttPerFileRenderTask.class,
+        t -> {
+          t.setGroup("ytt");
+          t.setDescription("Render ytt spec '" + spec.getName() + "' file by file");
+          t.getYttExecutable().set(ext.getYttExecutable());
+          t.getTemplatesDir().set(spec.getPerFileDir().getSingleFile());
+          configureInputs(project, t, ext, spec);
+          t.getOutputDir().set(ext.getOutputDir().dir(perFileInto(spec)));
+        });
+
+    project.getTasks().named("yttRenderAll").configure(task -> task.dependsOn(tp));
+  }
+
+  /**
+   * Lazily register the render task for a spec and add it to yttRenderAll.
+   *
+   * @param project {@link Project}
+   * @param ext {@link YttExtension}
+   * @param taskName {@link String}
+   * @param spec {@link Supplier} {@link YttSpec}
+   */
+  private void registerTask(final Project project, final YttExtension ext,
+      final String taskName, final Supplier<YttSpec> spec) {
+    var tp = project.getTasks().register(taskName, AbstractYttRenderTask.class,
+        t -> configureTask(project, t, ext, spec.get()));
+
+    project.getTasks().named("yttRenderAll").configure(task -> task.dependsOn(tp));
+  }
+
+  /**
+   * Bound and order every {@link YttRenderTask} using {@link YttRenderHistoryService}. Each task
+   * should run after the next slower one from previous builds, so when renders run in parallel
+   * the slowest are dispatched first. Gradle configures every task referenced by shouldRunAfter,
+   * so only tasks the build requests are chained: all of them for yttRenderAll, otherwise the
+   * render tasks named on the command line.
+   *
+   * @param project {@link Project}
+   * @param ext {@link YttExtension}
+   */
+  private void scheduleLongestFirst(final Project project, final YttExtension ext) {
+    File projectCacheDir = project.getGradle().getStartParameter().getProjectCacheDir();
+    if (projectCacheDir == null) {
+      projectCacheDir = project.getRootProject().file(".gradle");
+    }
+    File historyFile = new File(projectCacheDir, "ytt/render-history.properties");
+
+    Provider<YttRenderHistoryService> history = project.getGradle().getSharedServices()
+        .registerIfAbsent("yttRenderHistory", YttRenderHistoryService.class, s -> {
+          s.getParameters().getHistoryFile().set(historyFile);
+          s.getMaxParallelUsages().set(ext.getMaxParallelRenders());
+        });
+
+    List<String> requested = project.getGradle().getStartParameter().getTaskNames();
+    boolean all = isRequested(project, requested, "yttRenderAll");
+
+    var renderTasks = project.getTasks().withType(YttRenderTask.class);
+    Map<String, String> paths = new HashMap<>();
+    renderTasks.getNames().stream().filter(n -> all || isRequested(project, requested, n))
+        .forEach(n -> paths.put(project.absoluteProjectPath(n), n));
+
+    Map<String, Long> durations = YttRenderHistoryService.load(historyFile);
+    List<String> order = YttRenderHistoryService.longestFirst(paths.keySet(), durations);
+    Map<String, String> slower = new HashMap<>();
+    for (int i = 1; i < order.size(); i++) {
+      slower.put(paths.get(order.get(i)), paths.get(order.get(i - 1)));
+    }
+
+    renderTasks.configureEach(t -> {
+      t.usesService(history);
+      t.getRenderHistory().set(history);
+      if (slower.containsKey(t.getName())) {
+        t.shouldRunAfter(slower.get(t.getName()));
+      }
+    });
   }
 }
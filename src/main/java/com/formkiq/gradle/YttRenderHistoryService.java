@@ -0,0 +1,179 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.logging.Logging;
+import org.gradle.api.services.BuildService;
+import org.gradle.api.services.BuildServiceParameters;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Shared ytt render service. Bounds the number of concurrent renders and persists the observed
+ * render duration of every task across builds, so the slowest renders can be dispatched first.
+ */
+public abstract class YttRenderHistoryService
+    implements BuildService<YttRenderHistoryService.Params>, AutoCloseable {
+
+  /**
+   * {@link YttRenderHistoryService} Parameters.
+   */
+  public interface Params extends BuildServiceParameters {
+
+    /**
+     * History File.
+     *
+     * @return {@link RegularFileProperty}
+     */
+    RegularFileProperty getHistoryFile();
+  }
+
+  /** Smallest duration bucket, faster renders are not worth ordering. */
+  private static final long MIN_BUCKET = 128L;
+
+  /**
+   * Round a duration down to a power of two, at least {@link #MIN_BUCKET}, so run to run jitter
+   * does not change the order.
+   *
+   * @param millis long
+   * @return long
+   */
+  public static long bucket(final long millis) {
+    return Long.highestOneBit(Math.max(millis, MIN_BUCKET));
+  }
+
+  /**
+   * Load render durations (task path to millis), empty if the file does not exist.
+   *
+   * @param file {@link File}
+   * @return {@link Map}
+   */
+  public static Map<String, Long> load(final File file) {
+    Map<String, Long> m = new TreeMap<>();
+    if (file == null || !file.isFile()) {
+      return m;
+    }
+
+    Properties props = new Properties();
+    try (Reader r = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+      props.load(r);
+    } catch (IOException e) {
+      // history is only a scheduling hint, a corrupt file just means no history
+      return m;
+    }
+
+    for (String k : props.stringPropertyNames()) {
+      try {
+        m.put(k, Long.valueOf(props.getProperty(k)));
+      } catch (NumberFormatException e) {
+        // ignore invalid entry
+      }
+    }
+    return m;
+  }
+
+  /**
+   * Order keys slowest first. Keys without history are treated as slowest, so new specs are
+   * never left to the end of the build.
+   *
+   * @param keys {@link Collection} {@link String}
+   * @param durations {@link Map}
+   * @return {@link List} {@link String}
+   */
+  public static List<String> longestFirst(final Collection<String> keys,
+      final Map<String, Long> durations) {
+    List<String> list = new ArrayList<>(keys);
+    list.sort(Comparator
+        .comparingLong((String k) -> durations.getOrDefault(k, Long.MAX_VALUE)).reversed()
+        .thenComparing(Comparator.naturalOrder()));
+    return list;
+  }
+
+  /** Render durations. */
+  private final Map<String, Long> durations;
+  /** Order of the durations loaded from the history file. */
+  private final List<String> loadedOrder;
+
+  /**
+   * constructor.
+   */
+  public YttRenderHistoryService() {
+    this.durations = load(getParameters().getHistoryFile().getAsFile().getOrNull());
+    this.loadedOrder = longestFirst(durations.keySet(), durations);
+  }
+
+  /**
+   * Write the history file, only when the order changed. The plugin reads it while configuring
+   * the build, so rewriting it with the same order would needlessly invalidate the configuration
+   * cache.
+   */
+  @Override
+  public synchronized void close() {
+    File file = getParameters().getHistoryFile().getAsFile().getOrNull();
+    if (file == null || longestFirst(durations.keySet(), durations).equals(loadedOrder)) {
+      return;
+    }
+
+    Properties props = new Properties();
+    durations.forEach((k, v) -> props.setProperty(k, String.valueOf(v)));
+
+    try {
+      Files.createDirectories(file.toPath().getParent());
+      try (Writer w = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+        props.store(w, "ytt render durations (millis)");
+      }
+    } catch (IOException e) {
+      Logging.getLogger(YttRenderHistoryService.class).warn("Unable to write {}", file, e);
+    }
+  }
+
+  /**
+   * Record the duration of a render, rounded with {@link #bucket(long)}. A known duration is only
+   * replaced when the render got more than twice as fast or slow, so jitter around a bucket
+   * boundary keeps the history file unchanged.
+   *
+   * @param key {@link String}
+   * @param millis long
+   */
+  public synchronized void record(final String key, final long millis) {
+    long b = bucket(millis);
+    Long previous = durations.get(key);
+    if (previous == null || b / 2 > previous || b * 2 < previous) {
+      durations.put(key, b);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.MapProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.Optional;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+
+import java.time.Duration;
+
+/**
+ * Inputs shared by every ytt render (file, archive entry and per-file), configured from a
+ * {@link YttExtension} and {@link YttSpec} in one place. {@link YttRenderer} turns them into a
+ * ytt command line and runs it.
+ */
+public interface YttRenderInputs {
+
+  /**
+   * Spec data values, keep the raw map INTERNAL to avoid non-deterministic iteration issues.
+   *
+   * @return {@link MapProperty}
+   */
+  @Internal
+  MapProperty<String, String> getDataValues();
+
+  /**
+   * Spec data values files. YAML / JSON files are handed to ytt as --data-values-file,
+   * properties files are read at execution time.
+   *
+   * @return {@link ConfigurableFileCollection}
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.RELATIVE)
+  ConfigurableFileCollection getDataValuesFiles();
+
+  /**
+   * Deterministic, sorted representation of the spec data values used for incrementality.
+   *
+   * @return {@link ListProperty}
+   */
+  @Input
+  ListProperty<String> getDataValuesNormalized();
+
+  /**
+   * Extension default data values, overridden by every spec data value.
+   *
+   * @return {@link MapProperty}
+   */
+  @Internal
+  MapProperty<String, String> getDefaultDataValues();
+
+  /**
+   * Extension default data values files, overridden by every spec data value.
+   *
+   * @return {@link ConfigurableFileCollection}
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.RELATIVE)
+  ConfigurableFileCollection getDefaultDataValuesFiles();
+
+  /**
+   * Deterministic, sorted representation of the default data values used for incrementality.
+   *
+   * @return {@link ListProperty}
+   */
+  @Input
+  ListProperty<String> getDefaultDataValuesNormalized();
+
+  /**
+   * Environment variables passed to ytt, declared as inputs so changing them re-renders.
+   *
+   * @return {@link MapProperty}
+   */
+  @Input
+  MapProperty<String, String> getEnvironment();
+
+  /**
+   * Hash.
+   *
+   * @return {@link Property}
+   */
+  @Input
+  @Optional
+  Property<String> getHash();
+
+  /**
+   * Hermetic, when true ytt only sees {@link #getEnvironment()}, not the daemon environment.
+   *
+   * @return {@link Property}
+   */
+  @Input
+  @Optional
+  Property<Boolean> getHermetic();
+
+  /**
+   * Get Input Files.
+   *
+   * @return {@link ConfigurableFileCollection}
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.RELATIVE) // ensure good cache keys across machines
+  ConfigurableFileCollection getInputFiles();
+
+  /**
+   * Maximum number of YAML documents ytt may output.
+   *
+   * @return {@link Property}
+   */
+  @Input
+  @Optional
+  Property<Integer> getMaxDocuments();
+
+  /**
+   * Maximum number of bytes ytt may output.
+   *
+   * @return {@link Property}
+   */
+  @Input
+  @Optional
+  Property<Long> getMaxOutputBytes();
+
+  /**
+   * Maximum duration of a ytt render.
+   *
+   * @return {@link Property}
+   */
+  @Input
+  @Optional
+  Property<Duration> getMaxRenderDuration();
+}
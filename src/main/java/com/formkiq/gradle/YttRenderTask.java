@@ -0,0 +1,81 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import org.gradle.api.Task;
+import org.gradle.api.file.ConfigurableFileCollection;
+import org.gradle.api.provider.Property;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFiles;
+import org.gradle.api.tasks.Internal;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task that runs ytt. Every render task shares the {@link YttRenderHistoryService}, which bounds
+ * parallel renders and remembers how long each task took. The ytt binary itself is an input, so
+ * upgrading ytt invalidates up-to-date checks and build cache entries.
+ */
+public interface YttRenderTask extends Task {
+
+  /**
+   * Render History, used to record how long this render took.
+   *
+   * @return {@link Property}
+   */
+  @Internal
+  Property<YttRenderHistoryService> getRenderHistory();
+
+  /**
+   * Ytt binary found for {@link #getYttExecutable()}, fingerprinted by content. Empty when it
+   * is not found on the PATH.
+   *
+   * @return {@link ConfigurableFileCollection}
+   */
+  @InputFiles
+  @PathSensitive(PathSensitivity.NONE)
+  ConfigurableFileCollection getYttBinary();
+
+  /**
+   * Ytt Executable.
+   *
+   * @return {@link Property}
+   */
+  @Input
+  Property<String> getYttExecutable();
+
+  /**
+   * Record the duration of this task's render, if a render history is set.
+   *
+   * @param startNanos {@link System#nanoTime()} when the render started
+   */
+  default void recordDuration(final long startNanos) {
+    if (getRenderHistory().isPresent()) {
+      getRenderHistory().get().record(getPath(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+  }
+}
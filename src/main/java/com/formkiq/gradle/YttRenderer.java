@@ -0,0 +1,210 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Builds the ytt command line of a {@link YttRenderInputs} and runs it, streaming its output
+ * through the render limits.
+ */
+final class YttRenderer {
+
+  private YttRenderer() {
+  }
+
+  /**
+   * Build the ytt command line. Data values are layered as extension files, extension inline
+   * values, spec files, spec inline values, each overriding the previous. ytt applies every
+   * --data-values-file before any --data-value, so lower layers that must not win over spec
+   * files (properties files, and extension inline values when the spec has files) are written
+   * as generated data values files into tmpDir at execution time.
+   *
+   * @param inputs {@link YttRenderInputs}
+   * @param executable {@link String}
+   * @param tmpDir {@link File} for generated data values files
+   * @return {@link List} {@link String}
+   * @throws Exception Exception
+   */
+  static List<String> command(final YttRenderInputs inputs, final String executable,
+      final File tmpDir) throws Exception {
+    List<String> cmd = new ArrayList<>();
+    cmd.add(executable);
+
+    List<File> files = new ArrayList<>(inputs.getDefaultDataValuesFiles().getFiles());
+    Map<String, String> dv = new LinkedHashMap<>();
+    Map<String, String> defaults =
+        YttDataValues.toMap(inputs.getDefaultDataValuesNormalized().get());
+    if (inputs.getDataValuesFiles().isEmpty()) {
+      dv.putAll(defaults);
+    } else if (!defaults.isEmpty()) {
+      files.add(YttDataValues.write(new File(tmpDir, "default-data-values.json"), defaults));
+    }
+    files.addAll(inputs.getDataValuesFiles().getFiles());
+
+    for (int i = 0; i < files.size(); i++) {
+      File f = files.get(i);
+      if (f.getName().endsWith(".properties")) {
+        f = YttDataValues.write(new File(tmpDir, "data-values-" + i + ".json"),
+            YttDataValues.load(f));
+      }
+      cmd.add("--data-values-file");
+      cmd.add(f.getAbsolutePath());
+    }
+
+    // Rebuild a map from normalized form (sorted "k=v" pairs) for execution-time convenience
+    dv.putAll(YttDataValues.toMap(inputs.getDataValuesNormalized().get()));
+
+    if ("sha256".equals(inputs.getHash().getOrNull())) {
+      dv.put("hash", sha256Hex(randomAscii()));
+    }
+
+    dv.forEach((k, v) -> {
+      cmd.add("--data-value");
+      cmd.add(k + "=" + v);
+    });
+
+    inputs.getInputFiles().forEach(f -> {
+      cmd.add("-f");
+      cmd.add(f.getAbsolutePath());
+    });
+
+    return cmd;
+  }
+
+  private static void kill(final Process proc) {
+    // descendants may otherwise keep the output open
+    proc.descendants().forEach(ProcessHandle::destroyForcibly);
+    proc.destroyForcibly();
+  }
+
+  /**
+   * Wrap an {@link OutputStream} with the output limits of a render.
+   *
+   * @param inputs {@link YttRenderInputs}
+   * @param os {@link OutputStream}
+   * @return {@link YttOutputLimiter}
+   */
+  static YttOutputLimiter limit(final YttRenderInputs inputs, final OutputStream os) {
+    return new YttOutputLimiter(os, inputs.getMaxOutputBytes().getOrElse(0L),
+        inputs.getMaxDocuments().getOrElse(0));
+  }
+
+  private static String randomAscii() {
+    final int n = 10;
+    Random r = new Random();
+    final int fe = 48;
+    final int sf = 75;
+    StringBuilder sb = new StringBuilder(n);
+    for (int i = 0; i < n; i++) {
+      sb.append((char) (fe + r.nextInt(sf)));
+    }
+
+    return sb.toString();
+  }
+
+  /**
+   * Run ytt and stream its stdout through a {@link YttOutputLimiter}. The process is killed as
+   * soon as an output limit is crossed or it runs longer than the max render duration.
+   *
+   * @param inputs {@link YttRenderInputs}
+   * @param cmd {@link List} {@link String}
+   * @param os {@link YttOutputLimiter}
+   * @param target {@link String} used in error messages
+   * @throws Exception Exception
+   */
+  static void render(final YttRenderInputs inputs, final List<String> cmd,
+      final YttOutputLimiter os, final String target) throws Exception {
+    ProcessBuilder pb = new ProcessBuilder(cmd);
+    pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+    if (inputs.getHermetic().getOrElse(false)) {
+      pb.environment().clear();
+    }
+    pb.environment().putAll(inputs.getEnvironment().get());
+    Process proc = pb.start();
+
+    Duration maxDuration = inputs.getMaxRenderDuration().getOrNull();
+    AtomicBoolean timedOut = new AtomicBoolean();
+    CompletableFuture<Process> watchdog = null;
+    if (maxDuration != null) {
+      watchdog = proc.onExit().orTimeout(maxDuration.toMillis(), TimeUnit.MILLISECONDS);
+      watchdog.whenComplete((p, e) -> {
+        if (e instanceof TimeoutException) {
+          timedOut.set(true);
+          kill(proc);
+        }
+      });
+    }
+
+    int exit;
+    try (InputStream is = proc.getInputStream()) {
+      is.transferTo(os);
+      exit = proc.waitFor();
+    } catch (IOException e) {
+      throw new RuntimeException(e.getMessage() + " for " + target, e);
+    } finally {
+      // releases the scheduled timeout, and never leaves ytt running behind a failed render
+      if (watchdog != null) {
+        watchdog.cancel(false);
+      }
+      if (proc.isAlive()) {
+        kill(proc);
+      }
+    }
+
+    if (timedOut.get()) {
+      throw new RuntimeException(
+          "ytt exceeded maxRenderDuration (" + maxDuration + ") for " + target);
+    }
+
+    if (exit != 0) {
+      throw new RuntimeException("ytt exited with code " + exit + " for " + target);
+    }
+  }
+
+  private static String sha256Hex(final String txt) throws Exception {
+    MessageDigest md = MessageDigest.getInstance("SHA-256");
+    byte[] b = md.digest(txt.getBytes(StandardCharsets.UTF_8));
+    StringBuilder sb = new StringBuilder();
+    for (byte x : b) {
+      sb.append(String.format("%02x", x));
+    }
+    return sb.toString();
+  }
+}
@@ -25,10 +25,12 @@ package com.formkiq.gradle;
 
 import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.model.ObjectFactory;
+import org.gradle.api.provider.ListProperty;
 import org.gradle.api.provider.MapProperty;
 import org.gradle.api.provider.Property;
 import org.gradle.api.file.RegularFileProperty;
 
+import java.time.Duration;
 import java.util.Arrays;
 
 /**
@@ -48,6 +50,20 @@ public class YttSpec {
   private final MapProperty<String, String> dataValues;
   /** file name relative to extension.outputDir (copy-like "into"). */
   private final Property<String> intoFileName;
+  /** Data values files (YAML, JSON or properties). */
+  private final ConfigurableFileCollection dataValuesFiles;
+  /** archive file name relative to extension.outputDir. */
+  private final Property<String> archiveFileName;
+  /** Environment variable names passed through to ytt. */
+  private final ListProperty<String> passEnvironment;
+  /** Templates directory rendered file by file. */
+  private final ConfigurableFileCollection perFileDir;
+  /** Maximum number of output bytes. */
+  private final Property<Long> maxOutputBytes;
+  /** Maximum number of output YAML documents. */
+  private final Property<Integer> maxDocuments;
+  /** Maximum render duration. */
+  private final Property<Duration> maxRenderDuration;
 
   /**
    * constructor.
@@ -62,6 +78,32 @@ public class YttSpec {
     this.outputFile = objects.fileProperty();
     this.dataValues = objects.mapProperty(String.class, String.class);
     this.intoFileName = objects.property(String.class);
+    this.dataValuesFiles = objects.fileCollection();
+    this.archiveFileName = objects.property(String.class);
+    this.passEnvironment = objects.listProperty(String.class);
+    this.perFileDir = objects.fileCollection();
+    this.maxOutputBytes = objects.property(Long.class);
+    this.maxDocuments = objects.property(Integer.class);
+    this.maxRenderDuration = objects.property(Duration.class);
+  }
+
+  /**
+   * Render into an entry of a .tar.gz archive (relative to extension.outputDir) instead of a
+   * file. Specs sharing the same archive name are bundled together.
+   *
+   * @param fileName {@link String}
+   */
+  public void archive(final String fileName) {
+    this.archiveFileName.set(fileName);
+  }
+
+  /**
+   * Add data values files, read by ytt at execution time.
+   *
+   * @param paths {@link Object}
+   */
+  public void dataValuesFrom(final Object... paths) {
+    dataValuesFiles.from(Arrays.asList(paths));
   }
 
   /**
@@ -82,6 +124,15 @@ public class YttSpec {
     inputFiles.from(Arrays.asList(paths));
   }
 
+  /**
+   * Get Archive File Name.
+   *
+   * @return {@link Property}
+   */
+  public Property<String> getArchiveFileName() {
+    return archiveFileName;
+  }
+
   /**
    * Get Data Values.
    * 
@@ -91,6 +142,15 @@ public class YttSpec {
     return dataValues;
   }
 
+  /**
+   * Get Data Values Files.
+   *
+   * @return {@link ConfigurableFileCollection}
+   */
+  public ConfigurableFileCollection getDataValuesFiles() {
+    return dataValuesFiles;
+  }
+
   /**
    * Get Hash.
    * 
@@ -118,6 +178,33 @@ public class YttSpec {
     return intoFileName;
   }
 
+  /**
+   * Get Max Documents, the render fails once ytt outputs more YAML documents.
+   *
+   * @return {@link Property}
+   */
+  public Property<Integer> getMaxDocuments() {
+    return maxDocuments;
+  }
+
+  /**
+   * Get Max Output Bytes, the render fails once ytt outputs more bytes.
+   *
+   * @return {@link Property}
+   */
+  public Property<Long> getMaxOutputBytes() {
+    return maxOutputBytes;
+  }
+
+  /**
+   * Get Max Render Duration, ytt is killed once it runs longer.
+   *
+   * @return {@link Property}
+   */
+  public Property<Duration> getMaxRenderDuration() {
+    return maxRenderDuration;
+  }
+
   /**
    * Get Name.
    * 
@@ -136,6 +223,24 @@ public class YttSpec {
     return outputFile;
   }
 
+  /**
+   * Get Pass Environment.
+   *
+   * @return {@link ListProperty}
+   */
+  public ListProperty<String> getPassEnvironment() {
+    return passEnvironment;
+  }
+
+  /**
+   * Get Per File Templates Directory, empty unless perFile(...) was called.
+   *
+   * @return {@link ConfigurableFileCollection}
+   */
+  public ConfigurableFileCollection getPerFileDir() {
+    return perFileDir;
+  }
+
   /**
    * Set Hash.
    * 
@@ -153,4 +258,24 @@ public class YttSpec {
   public void into(final String fileName) {
     this.intoFileName.set(fileName);
   }
+
+  /**
+   * Render every file of a directory to its own output, incrementally. Outputs go to the
+   * into(...) directory (default spec name) relative to extension.outputDir, and from(...)
+   * files are shared by every render.
+   *
+   * @param dir {@link Object} any notation accepted by from(...)
+   */
+  public void perFile(final Object dir) {
+    this.perFileDir.setFrom(dir);
+  }
+
+  /**
+   * Allow-list environment variables passed through to ytt. Their values become task inputs.
+   *
+   * @param names {@link String}
+   */
+  public void passEnvironment(final String... names) {
+    passEnvironment.addAll(names);
+  }
 }
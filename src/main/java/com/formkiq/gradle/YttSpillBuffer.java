@@ -0,0 +1,131 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Output buffer that keeps data in memory up to a threshold, then spills everything to a file.
+ * Used where the full size must be known before the data can be written, such as tar entries.
+ */
+final class YttSpillBuffer extends OutputStream {
+
+  /** Default in memory threshold, 8 MiB. */
+  static final int DEFAULT_THRESHOLD = 8 * 1024 * 1024;
+
+  /** Spill File. */
+  private final File spillFile;
+  /** In memory threshold. */
+  private final int threshold;
+  /** In memory data, null once spilled. */
+  private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+  /** Spill file stream, null until spilled. */
+  private OutputStream file;
+  /** Bytes written. */
+  private long size;
+
+  /**
+   * constructor.
+   *
+   * @param spill {@link File} written once the threshold is crossed, deleted on close
+   * @param memoryThreshold int
+   */
+  YttSpillBuffer(final File spill, final int memoryThreshold) {
+    this.spillFile = spill;
+    this.threshold = memoryThreshold;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (file != null) {
+      file.close();
+    }
+    Files.deleteIfExists(spillFile.toPath());
+  }
+
+  /**
+   * Whether the data was spilled to disk.
+   *
+   * @return boolean
+   */
+  boolean isSpilled() {
+    return file != null;
+  }
+
+  /**
+   * Number of bytes written.
+   *
+   * @return long
+   */
+  long size() {
+    return size;
+  }
+
+  private void spill() throws IOException {
+    Files.createDirectories(spillFile.toPath().getParent());
+    file = new BufferedOutputStream(new FileOutputStream(spillFile));
+    memory.writeTo(file);
+    memory = null;
+  }
+
+  @Override
+  public void write(final byte[] b, final int off, final int len) throws IOException {
+    if (file == null && memory.size() + len > threshold) {
+      spill();
+    }
+
+    if (file != null) {
+      file.write(b, off, len);
+    } else {
+      memory.write(b, off, len);
+    }
+    size += len;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  /**
+   * Copy the buffered data to an {@link OutputStream}.
+   *
+   * @param os {@link OutputStream}
+   * @throws IOException IOException
+   */
+  void writeTo(final OutputStream os) throws IOException {
+    if (file != null) {
+      file.flush();
+      Files.copy(spillFile.toPath(), os);
+    } else {
+      memory.writeTo(os);
+    }
+  }
+}
@@ -0,0 +1,155 @@
+/**
+ * MIT License
+ * 
+ * Copyright (c) 2018 - 2025 FormKiQ
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.formkiq.gradle;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Minimal, reproducible ustar + gzip writer. Every entry is a regular file with the same mode,
+ * owner and timestamp, so identical content always produces an identical archive.
+ */
+final class YttTarGzWriter implements Closeable {
+
+  /** Tar block size. */
+  private static final int BLOCK = 512;
+  /** Max length of the name field. */
+  private static final int NAME_LENGTH = 100;
+  /** Max length of the prefix field. */
+  private static final int PREFIX_LENGTH = 155;
+  /** Mode field offset. */
+  private static final int MODE_OFFSET = 100;
+  /** Uid field offset. */
+  private static final int UID_OFFSET = 108;
+  /** Gid field offset. */
+  private static final int GID_OFFSET = 116;
+  /** Size field offset. */
+  private static final int SIZE_OFFSET = 124;
+  /** Mtime field offset. */
+  private static final int MTIME_OFFSET = 136;
+  /** Checksum field offset. */
+  private static final int CHECKSUM_OFFSET = 148;
+  /** Checksum field length. */
+  private static final int CHECKSUM_LENGTH = 8;
+  /** Type flag offset. */
+  private static final int TYPE_OFFSET = 156;
+  /** Magic field offset. */
+  private static final int MAGIC_OFFSET = 257;
+  /** Prefix field offset. */
+  private static final int PREFIX_OFFSET = 345;
+  /** Length of the 8 byte numeric fields. */
+  private static final int SHORT_NUMERIC = 8;
+  /** Length of the 12 byte numeric fields. */
+  private static final int LONG_NUMERIC = 12;
+  /** Regular file mode (0644). */
+  private static final int FILE_MODE = 0644;
+  /** Entry timestamp, 1980-01-01T00:00:00Z. */
+  private static final long MTIME = 315532800L;
+
+  /** Gzip stream. */
+  private final GZIPOutputStream out;
+
+  /**
+   * constructor.
+   *
+   * @param os {@link OutputStream}
+   * @throws IOException IOException
+   */
+  YttTarGzWriter(final OutputStream os) throws IOException {
+    this.out = new GZIPOutputStream(new BufferedOutputStream(os));
+  }
+
+  private static void putOctal(final byte[] header, final int offset, final int length,
+      final long value) {
+    String s = String.format("%0" + (length - 1) + "o", value);
+    byte[] b = s.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(b, 0, header, offset, b.length);
+  }
+
+  private static void putString(final byte[] header, final int offset, final String value) {
+    byte[] b = value.getBytes(StandardCharsets.UTF_8);
+    System.arraycopy(b, 0, header, offset, b.length);
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.write(new byte[BLOCK * 2]);
+    out.close();
+  }
+
+  /**
+   * Write a regular file entry from a {@link YttSpillBuffer}, without loading it in memory.
+   *
+   * @param name {@link String}
+   * @param data {@link YttSpillBuffer}
+   * @throws IOException IOException
+   */
+  public void putEntry(final String name, final YttSpillBuffer data) throws IOException {
+    out.write(header(name, data.size()));
+    data.writeTo(out);
+    pad(data.size());
+  }
+
+  private void pad(final long size) throws IOException {
+    out.write(new byte[(int) ((BLOCK - size % BLOCK) % BLOCK)]);
+  }
+
+  private byte[] header(final String name, final long size) {
+    String prefix = "";
+    String shortName = name;
+    if (name.getBytes(StandardCharsets.UTF_8).length > NAME_LENGTH) {
+      int i = name.lastIndexOf('/', PREFIX_LENGTH);
+      if (i < 0 || name.substring(i + 1).getBytes(StandardCharsets.UTF_8).length > NAME_LENGTH) {
+        throw new IllegalArgumentException("tar entry name too long: " + name);
+      }
+      prefix = name.substring(0, i);
+      shortName = name.substring(i + 1);
+    }
+
+    byte[] header = new byte[BLOCK];
+    putString(header, 0, shortName);
+    putOctal(header, MODE_OFFSET, SHORT_NUMERIC, FILE_MODE);
+    putOctal(header, UID_OFFSET, SHORT_NUMERIC, 0);
+    putOctal(header, GID_OFFSET, SHORT_NUMERIC, 0);
+    putOctal(header, SIZE_OFFSET, LONG_NUMERIC, size);
+    putOctal(header, MTIME_OFFSET, LONG_NUMERIC, MTIME);
+    header[TYPE_OFFSET] = '0';
+    putString(header, MAGIC_OFFSET, "ustar\u000000");
+    putString(header, PREFIX_OFFSET, prefix);
+
+    Arrays.fill(header, CHECKSUM_OFFSET, CHECKSUM_OFFSET + CHECKSUM_LENGTH, (byte) ' ');
+    long sum = 0;
+    for (byte b : header) {
+      sum += b & 0xff;
+    }
+    putOctal(header, CHECKSUM_OFFSET, CHECKSUM_LENGTH - 1, sum);
+    header[CHECKSUM_OFFSET + CHECKSUM_LENGTH - 2] = 0;
+    return header;
+  }
+}
@@ -26,18 +26,94 @@ package com.formkiq.gradle;
 import org.gradle.api.Project;
 import org.gradle.testfixtures.ProjectBuilder;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 
 public class YttRenderTaskTest {
 
+  @Test
+  void bucketRoundsDurationsDownToAPowerOfTwo() {
+    assertEquals(128L, YttRenderHistoryService.bucket(0L));
+    assertEquals(128L, YttRenderHistoryService.bucket(200L));
+    assertEquals(512L, YttRenderHistoryService.bucket(1000L));
+    assertEquals(1024L, YttRenderHistoryService.bucket(1024L));
+  }
+
+  @Test
+  void defaultDataValuesNeverOverrideSpecDataValuesFiles() throws Exception {
+    Project project = ProjectBuilder.builder().build();
+    File specValues = project.file("spec.yaml");
+    Files.writeString(specValues.toPath(), "env: spec\n", StandardCharsets.UTF_8);
+
+    var task = project.getTasks().register("render", AbstractYttRenderTask.class, t -> {
+      t.getYttExecutable().set("ytt");
+      t.getDefaultDataValuesNormalized().set(List.of("env=ext"));
+      t.getDataValuesFiles().from(specValues);
+      t.getDataValuesNormalized().set(List.of("top=spec"));
+    }).get();
+
+    List<String> cmd = task.buildCommand();
+    File defaults = new File(task.getTemporaryDir(), "default-data-values.json");
+    int defaultsIndex = cmd.indexOf(defaults.getAbsolutePath());
+    int specIndex = cmd.indexOf(specValues.getAbsolutePath());
+
+    assertTrue(defaultsIndex > 0 && defaultsIndex < specIndex);
+    assertFalse(cmd.contains("env=ext"));
+    assertTrue(cmd.contains("top=spec"));
+    assertEquals("{\"env\":\"ext\"}\n", Files.readString(defaults.toPath()));
+  }
+
+  @Test
+  void longestFirstOrdersBySlowestWithUnknownFirst() {
+    Map<String, Long> durations = Map.of(":a", 50L, ":b", 40000L, ":c", 900L);
+
+    List<String> order =
+        YttRenderHistoryService.longestFirst(List.of(":a", ":b", ":c", ":d"), durations);
+    assertEquals(List.of(":d", ":b", ":c", ":a"), order);
+  }
+
+  @Test
+  void outputLimiterCountsDocumentsAndBytes() throws IOException {
+    YttOutputLimiter os = new YttOutputLimiter(new ByteArrayOutputStream(), 0, 0);
+    os.write("a: 1\n---\nb: 2\n--- # c\nc: 3\n".getBytes(StandardCharsets.UTF_8));
+
+    assertEquals(3, os.getDocuments());
+    assertEquals(27, os.getBytes());
+
+    YttOutputLimiter limited = new YttOutputLimiter(new ByteArrayOutputStream(), 0, 1);
+    assertThrows(IOException.class,
+        () -> limited.write("---\na: 1\n---\nb: 2\n".getBytes(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void outputLimiterIgnoresSeparatorsWithoutContent() throws IOException {
+    for (String yaml : List.of("a: 1\n---\n", "a: 1\n---", "---\na: 1\n---\n---\n")) {
+      YttOutputLimiter os = new YttOutputLimiter(new ByteArrayOutputStream(), 0, 1);
+      os.write(yaml.getBytes(StandardCharsets.UTF_8));
+      assertEquals(1, os.getDocuments(), yaml);
+    }
+
+    YttOutputLimiter empty = new YttOutputLimiter(new ByteArrayOutputStream(), 0, 0);
+    empty.write("---\n".getBytes(StandardCharsets.UTF_8));
+    assertEquals(0, empty.getDocuments());
+  }
+
   @Test
   void normalizeDataValuesSortsByKeyAndSerializesAsKeyEqValue() {
     Map<String, String> map = new LinkedHashMap<>();
@@ -51,6 +127,37 @@ public class YttRenderTaskTest {
     assertTrue(normalized.contains("zeta=9"));
   }
 
+  @Test
+  void spillBufferSpillsPastThresholdAndWritesTheSameTarEntry(@TempDir final Path dir)
+      throws IOException {
+    byte[] data = "a: 1\n".repeat(100).getBytes(StandardCharsets.UTF_8);
+    File spill = dir.resolve("entry.out").toFile();
+    File inMemory = dir.resolve("in-memory.out").toFile();
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    try (YttSpillBuffer buffer = new YttSpillBuffer(inMemory, YttSpillBuffer.DEFAULT_THRESHOLD);
+        YttTarGzWriter tar = new YttTarGzWriter(expected)) {
+      buffer.write(data, 0, data.length);
+      assertFalse(buffer.isSpilled());
+      tar.putEntry("a.yaml", buffer);
+    }
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    try (YttSpillBuffer buffer = new YttSpillBuffer(spill, 64);
+        YttTarGzWriter tar = new YttTarGzWriter(actual)) {
+      buffer.write(data, 0, 10);
+      assertFalse(buffer.isSpilled());
+      buffer.write(data, 10, data.length - 10);
+      assertTrue(buffer.isSpilled());
+      assertTrue(spill.isFile());
+      assertEquals(data.length, buffer.size());
+      tar.putEntry("a.yaml", buffer);
+    }
+
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    assertFalse(spill.exists());
+  }
+
   @Test
   void taskCanBeRegisteredAsndAcceptsInputsOutputs() {
     Project project = ProjectBuilder.builder().build();